@@ -0,0 +1,114 @@
+/**
+ * A single bet on a race: win, place, show, exacta or trifecta.
+ */
+public class Bet {
+    public enum Type {
+        WIN("Win", 1), PLACE("Place", 1), SHOW("Show", 1),
+        EXACTA("Exacta", 2), TRIFECTA("Trifecta", 3);
+
+        private final String label;
+        private final int picks;
+
+        Type(String label, int picks) {
+            this.label = label;
+            this.picks = picks;
+        }
+
+        // how many horses the punter has to name
+        public int getPicks() {
+            return picks;
+        }
+
+        @Override
+        public String toString() {
+            return label;
+        }
+    }
+
+    private final Type type;
+    private final int[] lanes;
+    private final double amount;
+    private final double odds;
+
+    /**
+     * @param type   kind of bet
+     * @param lanes  0-based lanes picked, in finishing order for exacta/trifecta
+     * @param amount stake
+     * @param odds   decimal odds, payout = amount * odds
+     */
+    public Bet(Type type, int[] lanes, double amount, double odds) {
+        if (lanes.length != type.getPicks()) {
+            throw new IllegalArgumentException(type + " needs " + type.getPicks() + " horses");
+        }
+        for (int i = 0; i < lanes.length; i++) {
+            for (int j = 0; j < i; j++) {
+                if (lanes[i] == lanes[j]) {
+                    throw new IllegalArgumentException("Pick a different horse for each place");
+                }
+            }
+        }
+        this.type = type;
+        this.lanes = lanes;
+        this.amount = amount;
+        this.odds = odds;
+    }
+
+    /**
+     * Price a bet from simulated finishing orders.
+     */
+    public static double fairOdds(OutcomeCounter outcomes, Type type, int[] lanes) {
+        switch (type) {
+            case WIN:      return outcomes.fairOdds(outcomes.getWinCount(lanes[0]));
+            case PLACE:    return outcomes.fairOdds(outcomes.getPlaceCount(lanes[0]));
+            case SHOW:     return outcomes.fairOdds(outcomes.getShowCount(lanes[0]));
+            case EXACTA:   return outcomes.fairOdds(outcomes.getExactaCount(lanes[0], lanes[1]));
+            default:       return outcomes.fairOdds(outcomes.getTrifectaCount(lanes[0], lanes[1], lanes[2]));
+        }
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public double getAmount() {
+        return amount;
+    }
+
+    public double getOdds() {
+        return odds;
+    }
+
+    /**
+     * True if settling needs more than the winner, i.e. the race
+     * has to run until every horse has finished or fallen.
+     */
+    public boolean needsFullOrder() {
+        return type != Type.WIN;
+    }
+
+    /**
+     * Did this bet win? For anything but a win bet the race must be complete.
+     */
+    public boolean wins(RaceEngine engine) {
+        int finished = engine.getFinishedCount();
+        switch (type) {
+            case WIN:   return inTop(engine, lanes[0], 1);
+            case PLACE: return inTop(engine, lanes[0], 2);
+            case SHOW:  return inTop(engine, lanes[0], 3);
+            default:
+                if (finished < lanes.length) return false;
+                for (int i = 0; i < lanes.length; i++) {
+                    if (engine.getFinishLane(i) != lanes[i]) return false;
+                }
+                return true;
+        }
+    }
+
+    private static boolean inTop(RaceEngine engine, int lane, int places) {
+        int n = Math.min(places, engine.getFinishedCount());
+        for (int i = 0; i < n; i++) {
+            if (engine.getFinishLane(i) == lane) return true;
+        }
+        return false;
+    }
+}
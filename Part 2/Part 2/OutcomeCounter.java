@@ -0,0 +1,156 @@
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Tallies finishing orders for win, place, show, exacta and trifecta pricing.
+ * Ordered pairs and triples of lanes are stored in flat long arrays indexed
+ * by permutation rank (6 lanes: 30 exactas, 120 trifectas), so recording a
+ * race never allocates and two counters merge by adding arrays.
+ */
+public class OutcomeCounter {
+    private final int lanes;
+    private long races;
+    private final long[] win;       // finished 1st
+    private final long[] place;     // finished 1st or 2nd
+    private final long[] show;      // finished in the top 3
+    private final long[] exacta;    // indexed by exactaRank
+    private final long[] trifecta;  // indexed by trifectaRank
+
+    public OutcomeCounter(int lanes) {
+        this.lanes = lanes;
+        this.win = new long[lanes];
+        this.place = new long[lanes];
+        this.show = new long[lanes];
+        this.exacta = new long[lanes * (lanes - 1)];
+        this.trifecta = new long[Math.max(0, lanes * (lanes - 1) * (lanes - 2))];
+    }
+
+    /**
+     * Rank of the ordered pair (first, second) among all P(lanes, 2) pairs.
+     */
+    public int exactaRank(int first, int second) {
+        int b = second - (second > first ? 1 : 0);
+        return first * (lanes - 1) + b;
+    }
+
+    /**
+     * Rank of the ordered triple (first, second, third) among all P(lanes, 3).
+     */
+    public int trifectaRank(int first, int second, int third) {
+        int b = second - (second > first ? 1 : 0);
+        int c = third - (third > first ? 1 : 0) - (third > second ? 1 : 0);
+        return (first * (lanes - 1) + b) * (lanes - 2) + c;
+    }
+
+    /**
+     * Count the finishing order of a completed race.
+     * Horses that fell do not place.
+     */
+    public void record(RaceEngine engine) {
+        races++;
+        int n = engine.getFinishedCount();
+        if (n >= 1) {
+            int a = engine.getFinishLane(0);
+            win[a]++;
+            place[a]++;
+            show[a]++;
+        }
+        if (n >= 2) {
+            int a = engine.getFinishLane(0), b = engine.getFinishLane(1);
+            place[b]++;
+            show[b]++;
+            exacta[exactaRank(a, b)]++;
+        }
+        if (n >= 3) {
+            int a = engine.getFinishLane(0), b = engine.getFinishLane(1), c = engine.getFinishLane(2);
+            show[c]++;
+            trifecta[trifectaRank(a, b, c)]++;
+        }
+    }
+
+    public void merge(OutcomeCounter other) {
+        if (other.lanes != lanes) {
+            throw new IllegalArgumentException("Lane counts differ");
+        }
+        races += other.races;
+        add(win, other.win);
+        add(place, other.place);
+        add(show, other.show);
+        add(exacta, other.exacta);
+        add(trifecta, other.trifecta);
+    }
+
+    private static void add(long[] into, long[] from) {
+        for (int i = 0; i < into.length; i++) {
+            into[i] += from[i];
+        }
+    }
+
+    public int getLanes() {
+        return lanes;
+    }
+
+    public long getRaces() {
+        return races;
+    }
+
+    public long getWinCount(int lane) {
+        return win[lane];
+    }
+
+    public long getPlaceCount(int lane) {
+        return place[lane];
+    }
+
+    public long getShowCount(int lane) {
+        return show[lane];
+    }
+
+    public long getExactaCount(int first, int second) {
+        return exacta[exactaRank(first, second)];
+    }
+
+    public long getTrifectaCount(int first, int second, int third) {
+        return trifecta[trifectaRank(first, second, third)];
+    }
+
+    /**
+     * Fair decimal odds (payout per unit staked) for an outcome seen
+     * count times. Infinite if it never happened.
+     */
+    public double fairOdds(long count) {
+        return count == 0 ? Double.POSITIVE_INFINITY : (double) races / count;
+    }
+
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeInt(lanes);
+        out.writeLong(races);
+        write(out, win);
+        write(out, place);
+        write(out, show);
+        write(out, exacta);
+        write(out, trifecta);
+    }
+
+    private static void write(DataOutput out, long[] arr) throws IOException {
+        for (long v : arr) out.writeLong(v);
+    }
+
+    public static OutcomeCounter readFrom(DataInput in) throws IOException {
+        int lanes = in.readInt();
+        if (lanes < 2 || lanes > 6) throw new IOException("Bad lane count " + lanes);
+        OutcomeCounter c = new OutcomeCounter(lanes);
+        c.races = in.readLong();
+        read(in, c.win);
+        read(in, c.place);
+        read(in, c.show);
+        read(in, c.exacta);
+        read(in, c.trifecta);
+        return c;
+    }
+
+    private static void read(DataInput in, long[] arr) throws IOException {
+        for (int i = 0; i < arr.length; i++) arr[i] = in.readLong();
+    }
+}
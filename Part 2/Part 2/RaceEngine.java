@@ -0,0 +1,224 @@
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * The tick-by-tick race rules used by the GUI, without any Swing code.
+ * TrackPanel drives it from a Timer; RaceExporter drives it in a plain loop.
+ */
+public class RaceEngine {
+    private final List<Horse> horses;
+    private final Track track;
+    private final int trackLen;
+    private final String[] names;
+    private final int[] frozenFrames;
+    private final Random rng;
+    // lanes in the order they crossed the line; same-tick finishers by lane
+    private final int[] finishOrder;
+    private final long[] finishTick;
+    private final long[] fallTick;
+    private int finishedCount;
+
+    private long tick;
+    // null unless someone is listening
+    private RaceEventBus bus;
+
+    /**
+     * Create a race and put every horse back on the start line.
+     * @param horses   one horse per lane
+     * @param track    course to run, its length is the finishing distance
+     */
+    public RaceEngine(List<Horse> horses, Track track) {
+        this(horses, track, new Random());
+    }
+
+    /**
+     * Same as above but with a given random source, so a seeded race
+     * always plays out the same way.
+     */
+    public RaceEngine(List<Horse> horses, Track track, Random rng) {
+        this.rng = rng;
+        this.horses = horses;
+        this.track = track;
+        this.trackLen = track.getLength();
+        this.names = new String[horses.size()];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = horses.get(i).getName();
+        }
+        this.frozenFrames = new int[horses.size()];
+        this.finishOrder = new int[horses.size()];
+        this.finishTick = new long[horses.size()];
+        Arrays.fill(finishTick, -1);
+        this.fallTick = new long[horses.size()];
+        Arrays.fill(fallTick, -1);
+        horses.forEach(Horse::goBackToStart);
+    }
+
+    /**
+     * Move every horse one tick.
+     * @return true once somebody has won or everyone has fallen
+     */
+    public boolean step() {
+        tick++;
+        double baseInc = 0.000002;
+
+        for (int i = 0; i < horses.size(); i++) {
+            Horse h = horses.get(i);
+
+            if (frozenFrames[i] > 0) {
+                frozenFrames[i]--;
+                continue;
+            }
+            if (h.hasFallen() || finishTick[i] >= 0) continue;
+
+            // ground under the horse at the start of this tick
+            int seg = track.segmentAt(h.getDistanceTravelled());
+            double factor = track.getMoveFactor(seg);
+            double slipProb = track.getSlipProb(seg);
+            double tripProb = track.getTripProb(seg);
+
+            // move
+            if (rng.nextDouble() < h.getConfidence()) {
+                h.moveForward();
+                if (h.getDistanceTravelled() % 10 == 0) {
+                    double newConf = h.getConfidence() + baseInc * factor;
+                    h.setConfidence(Math.max(0.01, Math.min(1.0, newConf)));
+                }
+                publish(RaceEvent.Type.MOVE, i, h);
+            }
+            // over the line: a finished horse can no longer fall, slip or trip
+            if (h.getDistanceTravelled() >= trackLen) {
+                finishTick[i] = tick;
+                finishOrder[finishedCount++] = i;
+                publish(RaceEvent.Type.FINISH, i, h);
+                continue;
+            }
+            // fall
+            double fallProb = 0.001 * h.getConfidence() * h.getConfidence();
+            if (rng.nextDouble() < fallProb) {
+                h.fall();
+                fallTick[i] = tick;
+                publish(RaceEvent.Type.FALL, i, h);
+            }
+            // icy slip
+            if (slipProb > 0 && rng.nextDouble() < slipProb) {
+                double newConf = h.getConfidence() - 0.2;
+                h.setConfidence(Math.max(0.01, newConf));
+                frozenFrames[i] = 5;
+                publish(RaceEvent.Type.SLIP, i, h);
+            }
+            // muddy trip
+            if (tripProb > 0 && rng.nextDouble() < tripProb) {
+                double newConf = h.getConfidence() - 0.15;
+                h.setConfidence(Math.max(0.01, newConf));
+                frozenFrames[i] = 5;
+                publish(RaceEvent.Type.TRIP, i, h);
+            }
+        }
+        return isFinished();
+    }
+
+    private void publish(RaceEvent.Type type, int lane, Horse h) {
+        if (bus != null) {
+            bus.publish(type, tick, lane, h.getDistanceTravelled(), h.getConfidence());
+        }
+    }
+
+    /**
+     * Publish move, fall, slip, trip and finish events here from now on.
+     * Pass null to stop.
+     */
+    public void setEventBus(RaceEventBus bus) {
+        this.bus = bus;
+    }
+
+    /**
+     * True once somebody has won or everyone has fallen.
+     */
+    public boolean isFinished() {
+        return finishedCount > 0 || horses.stream().allMatch(Horse::hasFallen);
+    }
+
+    /**
+     * True once every horse has either finished or fallen,
+     * so the full finishing order is known.
+     */
+    public boolean isComplete() {
+        for (int i = 0; i < horses.size(); i++) {
+            if (finishTick[i] < 0 && !horses.get(i).hasFallen()) return false;
+        }
+        return true;
+    }
+
+    /**
+     * First horse (lowest lane) over the line, or null if nobody has finished.
+     */
+    public Horse getWinner() {
+        return finishedCount > 0 ? horses.get(finishOrder[0]) : null;
+    }
+
+    // horses over the line so far; fallen horses never finish
+    public int getFinishedCount() {
+        return finishedCount;
+    }
+
+    /**
+     * Lane index (0-based) of the horse that finished in the given place.
+     * @param place 0 for the winner, up to getFinishedCount() - 1
+     */
+    public int getFinishLane(int place) {
+        if (place >= finishedCount) {
+            throw new IndexOutOfBoundsException("Only " + finishedCount + " horses finished");
+        }
+        return finishOrder[place];
+    }
+
+    // tick the lane crossed the line, or -1 if it has not
+    public long getFinishTick(int lane) {
+        return finishTick[lane];
+    }
+
+    // tick the lane fell, or -1 if it has not
+    public long getFallTick(int lane) {
+        return fallTick[lane];
+    }
+
+    public List<Horse> getHorses() {
+        return horses;
+    }
+
+    public int getTrackLen() {
+        return trackLen;
+    }
+
+    public Track getTrack() {
+        return track;
+    }
+
+    public long getTick() {
+        return tick;
+    }
+
+    // horse name per lane
+    public String[] getNames() {
+        return names.clone();
+    }
+
+    /**
+     * Copy the current positions so they can be drawn on another thread.
+     * @param messages event messages to show, may be empty
+     */
+    public RaceFrame snapshot(String[] messages) {
+        int lanes = horses.size();
+        int[] distances = new int[lanes];
+        boolean[] fallen = new boolean[lanes];
+        double[] confidences = new double[lanes];
+        for (int i = 0; i < lanes; i++) {
+            Horse h = horses.get(i);
+            distances[i] = h.getDistanceTravelled();
+            fallen[i] = h.hasFallen();
+            confidences[i] = h.getConfidence();
+        }
+        return new RaceFrame(tick, track, names, distances, fallen, confidences, messages);
+    }
+}
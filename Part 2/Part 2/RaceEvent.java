@@ -0,0 +1,57 @@
+/**
+ * Something that happened to one horse on one tick.
+ * RaceEventBus keeps a fixed ring of these and overwrites them in place,
+ * so subscribers copy an event out rather than holding on to it.
+ */
+public class RaceEvent {
+    public enum Type { MOVE, FALL, SLIP, TRIP, FINISH }
+
+    // fields are volatile so a reader can tell if the slot changed under it
+    volatile long sequence = -1;
+    private volatile Type type;
+    private volatile long tick;
+    private volatile int lane;
+    private volatile int distance;
+    private volatile double confidence;
+
+    void set(Type type, long tick, int lane, int distance, double confidence) {
+        this.type = type;
+        this.tick = tick;
+        this.lane = lane;
+        this.distance = distance;
+        this.confidence = confidence;
+    }
+
+    void copyFrom(RaceEvent other) {
+        set(other.type, other.tick, other.lane, other.distance, other.confidence);
+        this.sequence = other.sequence;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public long getTick() {
+        return tick;
+    }
+
+    // 0-based lane of the horse
+    public int getLane() {
+        return lane;
+    }
+
+    // distance travelled when the event happened
+    public int getDistance() {
+        return distance;
+    }
+
+    // confidence after the event
+    public double getConfidence() {
+        return confidence;
+    }
+
+    // position in the bus, counting from 0
+    public long getSequence() {
+        return sequence;
+    }
+}
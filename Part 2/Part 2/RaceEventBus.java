@@ -0,0 +1,170 @@
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Single-producer, multi-consumer ring buffer of race events.
+ *
+ * The race loop publishes by writing into a preallocated slot, so publishing
+ * never allocates. Each subscriber reads at its own pace with its own
+ * position and picks a policy for when it falls a full ring behind:
+ *   DROP         - the producer carries on and the subscriber skips ahead,
+ *                  counting what it missed. Never slows the race down.
+ *   BACKPRESSURE - the producer waits for the subscriber before reusing a
+ *                  slot. Nothing is lost; use it only where the race loop
+ *                  may wait, e.g. offline export, not the GUI timer.
+ *
+ * Only one thread may publish. Subscribe before the race starts.
+ */
+public class RaceEventBus {
+    public enum Policy { DROP, BACKPRESSURE }
+
+    private final RaceEvent[] ring;
+    private final int mask;
+    // sequence of the last published event
+    private final AtomicLong cursor = new AtomicLong(-1);
+    private volatile Subscription[] gating = new Subscription[0];
+
+    /**
+     * @param capacity number of slots, rounded up to a power of two
+     */
+    public RaceEventBus(int capacity) {
+        if (capacity < 1) throw new IllegalArgumentException("Capacity must be at least 1");
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) size <<= 1;
+        this.ring = new RaceEvent[size];
+        for (int i = 0; i < size; i++) ring[i] = new RaceEvent();
+        this.mask = size - 1;
+    }
+
+    public int getCapacity() {
+        return ring.length;
+    }
+
+    /**
+     * Start reading from the next event published.
+     */
+    public synchronized Subscription subscribe(Policy policy) {
+        Subscription sub = new Subscription(policy, cursor.get() + 1);
+        if (policy == Policy.BACKPRESSURE) {
+            Subscription[] next = Arrays.copyOf(gating, gating.length + 1);
+            next[gating.length] = sub;
+            gating = next;
+        }
+        return sub;
+    }
+
+    /**
+     * Stop a subscriber holding the producer back. Safe to call more than once.
+     */
+    public synchronized void unsubscribe(Subscription sub) {
+        sub.closed = true;
+        Subscription[] cur = gating;
+        for (int i = 0; i < cur.length; i++) {
+            if (cur[i] == sub) {
+                Subscription[] next = new Subscription[cur.length - 1];
+                System.arraycopy(cur, 0, next, 0, i);
+                System.arraycopy(cur, i + 1, next, i, cur.length - i - 1);
+                gating = next;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Publish one event. Only ever called from the race loop's thread.
+     * Waits only if a BACKPRESSURE subscriber is a full ring behind.
+     */
+    public void publish(RaceEvent.Type type, long tick, int lane, int distance, double confidence) {
+        long seq = cursor.get() + 1;
+        long wrap = seq - ring.length;
+        for (Subscription sub : gating) {
+            while (sub.consumed.get() < wrap && !sub.closed) {
+                Thread.yield();
+            }
+        }
+        RaceEvent slot = ring[(int) (seq & mask)];
+        slot.sequence = -1;      // mark the slot as being rewritten
+        slot.set(type, tick, lane, distance, confidence);
+        slot.sequence = seq;
+        cursor.set(seq);
+    }
+
+    /**
+     * Read handle for one consumer. Use from a single thread.
+     */
+    public class Subscription {
+        private final Policy policy;
+        private long next;
+        // last sequence handed out, read by the producer for backpressure
+        private final AtomicLong consumed;
+        private volatile boolean closed;
+        private long dropped;
+
+        private Subscription(Policy policy, long start) {
+            this.policy = policy;
+            this.next = start;
+            this.consumed = new AtomicLong(start - 1);
+        }
+
+        public Policy getPolicy() {
+            return policy;
+        }
+
+        /**
+         * Copy the next event into the given holder.
+         * @return false if there is nothing new yet
+         */
+        public boolean poll(RaceEvent into) {
+            while (true) {
+                long available = cursor.get();
+                if (next > available) return false;
+
+                // lapped by the producer: skip to the oldest event still in the ring
+                long oldest = available - ring.length + 1;
+                if (next < oldest) {
+                    dropped += oldest - next;
+                    next = oldest;
+                }
+
+                RaceEvent slot = ring[(int) (next & mask)];
+                if (slot.sequence == next) {
+                    into.copyFrom(slot);
+                    // still the same event after copying? then it was not torn
+                    if (slot.sequence == next) {
+                        consumed.lazySet(next);
+                        next++;
+                        return true;
+                    }
+                }
+                // overwritten while we looked
+                dropped++;
+                next++;
+            }
+        }
+
+        /**
+         * Hand every available event to the handler, at most max of them.
+         * @return number of events handled
+         */
+        public int drain(RaceEvent into, Handler handler, int max) {
+            int n = 0;
+            while (n < max && poll(into)) {
+                handler.onEvent(into);
+                n++;
+            }
+            return n;
+        }
+
+        // events this subscriber missed because it fell behind (DROP only)
+        public long getDropped() {
+            return dropped;
+        }
+    }
+
+    /**
+     * Callback used by Subscription.drain.
+     */
+    public interface Handler {
+        void onEvent(RaceEvent event);
+    }
+}
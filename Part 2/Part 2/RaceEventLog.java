@@ -0,0 +1,78 @@
+/**
+ * Keeps the last few falls, slips, trips and finishes as on-screen messages.
+ * Used by TrackPanel and RaceExporter, drained from the same thread that
+ * runs the race, between ticks.
+ */
+public class RaceEventLog implements RaceEventBus.Handler {
+    // a message stays up for 2 seconds of the 30 ms GUI timer
+    public static final int EVENT_TICKS = 2000 / 30;
+    private static final int MAX_MESSAGES = 4;
+
+    private final RaceEventBus.Subscription subscription;
+    private final String[] names;
+    private final RaceEvent scratch = new RaceEvent();
+    // newest last
+    private final String[] messages = new String[MAX_MESSAGES];
+    private final long[] messageTicks = new long[MAX_MESSAGES];
+    private int count;
+    private int finishers;
+
+    /**
+     * @param bus   where the race publishes
+     * @param names horse name per lane
+     */
+    public RaceEventLog(RaceEventBus bus, String[] names) {
+        this.subscription = bus.subscribe(RaceEventBus.Policy.DROP);
+        this.names = names;
+    }
+
+    /**
+     * Read everything published since the last call.
+     */
+    public void update() {
+        subscription.drain(scratch, this, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public void onEvent(RaceEvent e) {
+        String name = names[e.getLane()];
+        switch (e.getType()) {
+            case SLIP:   add(name + " slipped on the ice!", e.getTick()); break;
+            case TRIP:   add(name + " tripped in the mud!", e.getTick()); break;
+            case FALL:   add(name + " fell!", e.getTick()); break;
+            case FINISH: add(name + " finished " + ordinal(++finishers) + "!", e.getTick()); break;
+            default:     break;
+        }
+    }
+
+    private void add(String message, long tick) {
+        if (count == MAX_MESSAGES) {
+            System.arraycopy(messages, 1, messages, 0, MAX_MESSAGES - 1);
+            System.arraycopy(messageTicks, 1, messageTicks, 0, MAX_MESSAGES - 1);
+            count--;
+        }
+        messages[count] = message;
+        messageTicks[count] = tick;
+        count++;
+    }
+
+    private static String ordinal(int n) {
+        switch (n) {
+            case 1:  return "1st";
+            case 2:  return "2nd";
+            case 3:  return "3rd";
+            default: return n + "th";
+        }
+    }
+
+    /**
+     * Messages still on screen at this tick, oldest first.
+     */
+    public String[] getMessages(long tick) {
+        int first = 0;
+        while (first < count && tick - messageTicks[first] >= EVENT_TICKS) first++;
+        String[] out = new String[count - first];
+        System.arraycopy(messages, first, out, 0, out.length);
+        return out;
+    }
+}
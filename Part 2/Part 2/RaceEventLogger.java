@@ -0,0 +1,75 @@
+import java.io.PrintStream;
+
+/**
+ * Writes race events to a stream on its own thread, as fast as the stream
+ * allows. With DROP it may miss events when the race outruns it and says
+ * how many at the end; with BACKPRESSURE it records every one.
+ */
+public class RaceEventLogger implements Runnable, RaceEventBus.Handler {
+    private final RaceEventBus bus;
+    private final RaceEventBus.Subscription subscription;
+    private final PrintStream out;
+    private final String[] names;
+    private final boolean includeMoves;
+    private final RaceEvent scratch = new RaceEvent();
+    private final Thread thread;
+    private volatile boolean stopping;
+
+    /**
+     * @param bus          where the race publishes
+     * @param policy       what happens when the logger falls behind
+     * @param out          where lines go, one per event
+     * @param names        horse name per lane
+     * @param includeMoves also log every step forward
+     */
+    public RaceEventLogger(RaceEventBus bus, RaceEventBus.Policy policy, PrintStream out,
+                           String[] names, boolean includeMoves) {
+        this.bus = bus;
+        this.subscription = bus.subscribe(policy);
+        this.out = out;
+        this.names = names;
+        this.includeMoves = includeMoves;
+        this.thread = new Thread(this, "race-event-logger");
+        this.thread.setDaemon(true);
+    }
+
+    public void start() {
+        thread.start();
+    }
+
+    /**
+     * Log whatever is left, then stop the thread.
+     */
+    public void close() throws InterruptedException {
+        stopping = true;
+        thread.join();
+        bus.unsubscribe(subscription);
+        if (subscription.getDropped() > 0) {
+            out.println("(" + subscription.getDropped() + " events dropped)");
+        }
+        out.flush();
+    }
+
+    @Override
+    public void run() {
+        while (true) {
+            // read the flag first so nothing published before close() is missed
+            boolean last = stopping;
+            if (subscription.drain(scratch, this, 1024) == 0) {
+                if (last) return;
+                try {
+                    Thread.sleep(1);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+    }
+
+    @Override
+    public void onEvent(RaceEvent e) {
+        if (e.getType() == RaceEvent.Type.MOVE && !includeMoves) return;
+        out.printf("%d,%s,%s,%d,%.4f%n", e.getTick(), e.getType(), names[e.getLane()],
+                e.getDistance(), e.getConfidence());
+    }
+}
@@ -0,0 +1,295 @@
+// RaceExporter.java
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Exports a race as a PNG sequence without opening a window.
+ *
+ * Three stages joined by bounded queues:
+ *   race loop -> frames -> render threads -> images -> encode threads -> files
+ * Images come from a fixed pool and are handed back after encoding,
+ * so memory stays the same however many ticks the race lasts.
+ *
+ * Usage: java RaceExporter outDir trackLen terrain name:conf name:conf ... [--every N] [--events file]
+ * --events writes every race event to a CSV file; that logger uses backpressure,
+ * so the race loop waits for it rather than lose events.
+ * terrain is a name (Muddy) or a course such as Normal:2,Muddy:1,Icy:1
+ */
+public class RaceExporter {
+    private static final int WIDTH  = 800;
+    private static final int HEIGHT = 300;
+    private static final int QUEUE_SIZE = 32;
+    private static final int EVENT_BUFFER = 4096;
+
+    // marks the end of a queue
+    private static final RaceFrame END_FRAME = new RaceFrame(-1, Track.uniform(1, Terrain.NORMAL), new String[0],
+            new int[0], new boolean[0], new double[0], new String[0]);
+    private static final Rendered END_IMAGE = new Rendered(-1, null);
+
+    private final File outDir;
+    private final int renderThreads;
+    private final int encodeThreads;
+    private final int every;
+
+    private final BlockingQueue<RaceFrame> frames = new ArrayBlockingQueue<>(QUEUE_SIZE);
+    private final BlockingQueue<Rendered> images = new ArrayBlockingQueue<>(QUEUE_SIZE);
+    private final BlockingQueue<BufferedImage> imagePool;
+    private volatile Exception failure;
+    private ExecutorService renderers;
+    private ExecutorService encoders;
+
+    /**
+     * @param outDir        where frame_00000.png, frame_00001.png ... are written
+     * @param renderThreads threads drawing frames
+     * @param encodeThreads threads writing PNG files
+     * @param every         keep one frame every this many ticks
+     */
+    public RaceExporter(File outDir, int renderThreads, int encodeThreads, int every) {
+        if (renderThreads < 1 || encodeThreads < 1 || every < 1) {
+            throw new IllegalArgumentException("Thread counts and frame step must be at least 1");
+        }
+        this.outDir = outDir;
+        this.renderThreads = renderThreads;
+        this.encodeThreads = encodeThreads;
+        this.every = every;
+
+        int poolSize = renderThreads + encodeThreads + QUEUE_SIZE;
+        this.imagePool = new ArrayBlockingQueue<>(poolSize);
+        for (int i = 0; i < poolSize; i++) {
+            imagePool.add(new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB));
+        }
+    }
+
+    /**
+     * Run the race to the end, writing frames as it goes.
+     * @param bus the engine publishes here; frames show its recent events
+     * @return number of frames written
+     */
+    public int export(RaceEngine engine, RaceEventBus bus) throws IOException, InterruptedException {
+        if (!outDir.isDirectory() && !outDir.mkdirs()) {
+            throw new IOException("Cannot create " + outDir);
+        }
+
+        // daemon threads, so a thread stuck in a write cannot keep the JVM alive
+        ThreadFactory daemons = r -> {
+            Thread t = new Thread(r, "race-export");
+            t.setDaemon(true);
+            return t;
+        };
+        renderers = Executors.newFixedThreadPool(renderThreads, daemons);
+        encoders = Executors.newFixedThreadPool(encodeThreads, daemons);
+        for (int i = 0; i < renderThreads; i++) renderers.execute(this::renderLoop);
+        for (int i = 0; i < encodeThreads; i++) encoders.execute(this::encodeLoop);
+
+        RaceEventLog log = new RaceEventLog(bus, engine.getNames());
+        engine.setEventBus(bus);
+        int count = 0;
+        try {
+            offer(frames, engine.snapshot(log.getMessages(engine.getTick())));
+            count++;
+            boolean finished = false;
+            while (!finished && failure == null) {
+                finished = engine.step();
+                log.update();
+                // always keep the last frame so the result is visible
+                if (finished || engine.getTick() % every == 0) {
+                    offer(frames, engine.snapshot(log.getMessages(engine.getTick())));
+                    count++;
+                }
+            }
+            for (int i = 0; i < renderThreads; i++) offer(frames, END_FRAME);
+
+            renderers.shutdown();
+            awaitStage(renderers);
+            for (int i = 0; i < encodeThreads; i++) offer(images, END_IMAGE);
+            encoders.shutdown();
+            awaitStage(encoders);
+        } finally {
+            renderers.shutdownNow();
+            encoders.shutdownNow();
+        }
+
+        if (failure != null) {
+            throw new IOException("Export failed", failure);
+        }
+        return count;
+    }
+
+    // wait for a stage to finish, giving up if any stage has failed
+    private void awaitStage(ExecutorService stage) throws InterruptedException {
+        while (!stage.awaitTermination(100, TimeUnit.MILLISECONDS)) {
+            if (failure != null) return;
+        }
+    }
+
+    // put into a queue; false if another stage has failed first
+    private <T> boolean offer(BlockingQueue<T> queue, T item) throws InterruptedException {
+        while (!queue.offer(item, 100, TimeUnit.MILLISECONDS)) {
+            if (failure != null) return false;
+        }
+        return true;
+    }
+
+    // take from a queue; null if another stage has failed first
+    private <T> T poll(BlockingQueue<T> queue) throws InterruptedException {
+        while (true) {
+            T item = queue.poll(100, TimeUnit.MILLISECONDS);
+            if (item != null) return item;
+            if (failure != null) return null;
+        }
+    }
+
+    // record the first failure and stop every stage straight away
+    private synchronized void fail(Exception e) {
+        if (failure == null) failure = e;
+        renderers.shutdownNow();
+        encoders.shutdownNow();
+    }
+
+    private void renderLoop() {
+        try {
+            while (true) {
+                RaceFrame frame = poll(frames);
+                if (frame == null || frame == END_FRAME) return;
+
+                BufferedImage img = poll(imagePool);
+                if (img == null) return;
+                Graphics2D g2 = img.createGraphics();
+                try {
+                    g2.setColor(Color.WHITE);
+                    g2.fillRect(0, 0, WIDTH, HEIGHT);
+                    g2.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING,
+                            RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+                    RaceRenderer.paint(g2, frame, HEIGHT);
+                } finally {
+                    g2.dispose();
+                }
+                // frame number comes from the tick so files sort in race order;
+                // rounding up gives the closing frame its own number
+                int index = (int) ((frame.getTick() + every - 1) / every);
+                if (!offer(images, new Rendered(index, img))) {
+                    imagePool.offer(img);
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            // stopped by fail()
+        } catch (Exception e) {
+            fail(e);
+        }
+    }
+
+    private void encodeLoop() {
+        try {
+            while (true) {
+                Rendered r = poll(images);
+                if (r == null || r == END_IMAGE) return;
+                try {
+                    File out = new File(outDir, String.format("frame_%05d.png", r.index));
+                    ImageIO.write(r.image, "png", out);
+                } finally {
+                    // the pool never holds more than its capacity, so this cannot fail
+                    imagePool.offer(r.image);
+                }
+            }
+        } catch (InterruptedException e) {
+            // stopped by fail()
+        } catch (Exception e) {
+            fail(e);
+        }
+    }
+
+    // a drawn frame on its way to the encoder
+    private static class Rendered {
+        final int index;
+        final BufferedImage image;
+
+        Rendered(int index, BufferedImage image) {
+            this.index = index;
+            this.image = image;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        // no display needed
+        System.setProperty("java.awt.headless", "true");
+
+        if (args.length < 5) {
+            System.out.println("Usage: java RaceExporter outDir trackLen terrain name:conf name:conf ... [--every N] [--events file]");
+            return;
+        }
+        File outDir = new File(args[0]);
+        int trackLen = Integer.parseInt(args[1]);
+        Track track = Track.fromSpec(trackLen, args[2]);
+
+        int every = 1;
+        File eventsFile = null;
+        List<Horse> horses = new ArrayList<>();
+        for (int i = 3; i < args.length; i++) {
+            if (args[i].equals("--every")) {
+                every = Integer.parseInt(args[++i]);
+                continue;
+            }
+            if (args[i].equals("--events")) {
+                eventsFile = new File(args[++i]);
+                continue;
+            }
+            String[] parts = args[i].split(":");
+            double conf = parts.length > 1 ? Double.parseDouble(parts[1]) : 0.7;
+            if (conf <= 0.0) conf = 0.01;  // never allow zero
+            horses.add(new Horse(parts[0].charAt(0), parts[0], conf));
+        }
+        if (horses.size() < 2 || horses.size() > 6) {
+            System.out.println("Need between 2 and 6 horses.");
+            return;
+        }
+
+        // drawing a frame takes ~2 ms but writing the PNG ~14 ms,
+        // so one renderer keeps every other core busy encoding
+        int cpus = Runtime.getRuntime().availableProcessors();
+        int renderThreads = 1;
+        int encodeThreads = Math.max(1, cpus - 1);
+        RaceExporter exporter = new RaceExporter(outDir, renderThreads, encodeThreads, every);
+
+        long start = System.currentTimeMillis();
+        RaceEngine engine = new RaceEngine(horses, track);
+        RaceEventBus bus = new RaceEventBus(EVENT_BUFFER);
+        RaceEventLogger logger = null;
+        PrintStream eventsOut = null;
+        if (eventsFile != null) {
+            eventsOut = new PrintStream(new BufferedOutputStream(new FileOutputStream(eventsFile)), false, "UTF-8");
+            eventsOut.println("tick,event,horse,distance,confidence");
+            logger = new RaceEventLogger(bus, RaceEventBus.Policy.BACKPRESSURE, eventsOut,
+                    engine.getNames(), true);
+            logger.start();
+        }
+        int count;
+        try {
+            count = exporter.export(engine, bus);
+        } finally {
+            if (logger != null) {
+                logger.close();
+                eventsOut.close();
+            }
+        }
+        Horse winner = engine.getWinner();
+        System.out.printf("Wrote %d frames to %s in %d ms (%s)%n",
+                count, outDir, System.currentTimeMillis() - start,
+                winner != null ? winner.getName() + " wins" : "all horses fell");
+    }
+}
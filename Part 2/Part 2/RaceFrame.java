@@ -0,0 +1,61 @@
+/**
+ * Immutable snapshot of a race at one tick.
+ * Lets the renderer draw a frame while the engine has already moved on.
+ */
+public class RaceFrame {
+    private final long tick;
+    private final Track track;
+    private final String[] names;
+    private final int[] distances;
+    private final boolean[] fallen;
+    private final double[] confidences;
+    private final String[] eventMessages;
+
+    public RaceFrame(long tick, Track track, String[] names, int[] distances,
+                     boolean[] fallen, double[] confidences, String[] eventMessages) {
+        this.tick = tick;
+        this.track = track;
+        this.names = names;
+        this.distances = distances;
+        this.fallen = fallen;
+        this.confidences = confidences;
+        this.eventMessages = eventMessages;
+    }
+
+    public long getTick() {
+        return tick;
+    }
+
+    public int getTrackLen() {
+        return track.getLength();
+    }
+
+    public Track getTrack() {
+        return track;
+    }
+
+    public int getLanes() {
+        return names.length;
+    }
+
+    public String getName(int lane) {
+        return names[lane];
+    }
+
+    public int getDistance(int lane) {
+        return distances[lane];
+    }
+
+    public boolean hasFallen(int lane) {
+        return fallen[lane];
+    }
+
+    public double getConfidence(int lane) {
+        return confidences[lane];
+    }
+
+    // recent events to show, oldest first; empty when there are none
+    public String[] getEventMessages() {
+        return eventMessages;
+    }
+}
@@ -3,7 +3,6 @@
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.*;
-import java.awt.geom.AffineTransform;
 import java.util.List;
 import java.util.ArrayList;
 
@@ -15,6 +14,11 @@ public class RaceGUI extends JFrame {
     private JButton startBtn;
     private TrackPanel trackPanel;
 
+    // simulated races used to price place/show/exacta/trifecta bets
+    private static final int PRICING_RACES = 2000;
+    // "Mixed" terrain: mud on the back straight, ice on the bend
+    private static final String MIXED_COURSE = "Normal:1,Muddy:1,Icy:1,Normal:1";
+
     public RaceGUI() {
         super("Horse Race");
         setDefaultCloseOperation(EXIT_ON_CLOSE);
@@ -31,7 +35,7 @@ public class RaceGUI extends JFrame {
         top.add(lengthCombo);
 
         top.add(new JLabel("Terrain:"));
-        terrainCombo = new JComboBox<>(new String[]{"Normal","Muddy","Icy"});
+        terrainCombo = new JComboBox<>(new String[]{"Normal","Muddy","Icy","Mixed"});
         top.add(terrainCombo);
 
         startBtn = new JButton("Start Race");
@@ -94,6 +98,7 @@ public class RaceGUI extends JFrame {
     private void onStart() {
         int trackLen = (Integer)lengthCombo.getSelectedItem();
         String terrain = (String)terrainCombo.getSelectedItem();
+        Track track = Track.fromSpec(trackLen, terrain.equals("Mixed") ? MIXED_COURSE : terrain);
         List<Horse> horses = new ArrayList<>();
         Component[] comps = horseInputPanel.getComponents();
         for (int i = 0; i < comps.length; i += 4) {
@@ -103,74 +108,140 @@ public class RaceGUI extends JFrame {
             horses.add(new Horse(name.charAt(0), name, conf));
         }
 
-        // Prepare bet options
-        String[] betOptions = new String[horses.size()];
-        double[] oddsArr = new double[horses.size()];
+        // Prepare bet options: win odds from confidence, the rest from simulated races
+        String[] names = new String[horses.size()];
+        double[] confs = new double[horses.size()];
         for (int i=0; i<horses.size(); i++) {
-            double c = horses.get(i).getConfidence();
-            double o = 1.0/c;
-            oddsArr[i] = o;
-            betOptions[i] = String.format("%s (odds %.2f×)", horses.get(i).getName(), o);
+            names[i] = horses.get(i).getName();
+            confs[i] = horses.get(i).getConfidence();
         }
-        JComboBox<String> betCombo = new JComboBox<>(betOptions);
+
+        // simulate off the event thread so the window stays responsive
+        SimulationJob job = new SimulationJob(names, confs, track);
+        setControlsEnabled(false);
+        startBtn.setText("Pricing...");
+        new SwingWorker<OutcomeCounter, Void>() {
+            @Override
+            protected OutcomeCounter doInBackground() throws Exception {
+                int threads = Runtime.getRuntime().availableProcessors();
+                return job.runParallel(0, PRICING_RACES, threads).getOutcomes();
+            }
+
+            @Override
+            protected void done() {
+                // the bet dialog is modal, so the form cannot change before it closes
+                startBtn.setText("Start Race");
+                setControlsEnabled(true);
+                OutcomeCounter outcomes;
+                try {
+                    outcomes = get();
+                } catch (Exception ex) {
+                    JOptionPane.showMessageDialog(RaceGUI.this, "Could not price bets: " + ex.getMessage());
+                    return;
+                }
+                placeBetAndStart(horses, track, names, confs, outcomes);
+            }
+        }.execute();
+    }
+
+    // Show the bet dialog with simulated odds, then start the race
+    private void placeBetAndStart(List<Horse> horses, Track track, String[] names,
+                                  double[] confs, OutcomeCounter outcomes) {
+        JComboBox<Bet.Type> typeCombo = new JComboBox<>(Bet.Type.values());
+        List<JComboBox<String>> pickCombos = new ArrayList<>();
         JTextField betField = new JTextField("100",7);
+        JLabel oddsLabel = new JLabel();
         JPanel betPanel = new JPanel();
-        betPanel.add(new JLabel("Bet on:")); betPanel.add(betCombo);
+        betPanel.add(new JLabel("Bet:")); betPanel.add(typeCombo);
+        String[] placeLabels = {"1st:", "2nd:", "3rd:"};
+        for (int i=0; i<3; i++) {
+            JComboBox<String> pick = new JComboBox<>(names);
+            pick.setSelectedIndex(Math.min(i, names.length-1));
+            pickCombos.add(pick);
+            betPanel.add(new JLabel(placeLabels[i])); betPanel.add(pick);
+        }
         betPanel.add(new JLabel("Amount:")); betPanel.add(betField);
+        betPanel.add(oddsLabel);
+
+        Runnable updateOdds = () -> {
+            Bet.Type type = (Bet.Type)typeCombo.getSelectedItem();
+            for (int i=0; i<3; i++) pickCombos.get(i).setEnabled(i < type.getPicks());
+            double o = betOdds(type, picks(pickCombos, type), confs, outcomes);
+            oddsLabel.setText(Double.isNaN(o) ? "(pick different horses)"
+                    : Double.isInfinite(o) ? "(never seen)"
+                    : String.format("odds %.2f×", o));
+        };
+        typeCombo.addActionListener(e -> updateOdds.run());
+        for (JComboBox<String> pick : pickCombos) pick.addActionListener(e -> updateOdds.run());
+        updateOdds.run();
 
         if (JOptionPane.showConfirmDialog(
                 this, betPanel, "Place your bet", JOptionPane.OK_CANCEL_OPTION
         ) != JOptionPane.OK_OPTION) return;
 
-        int betIdx; double betAmt;
+        Bet bet;
         try {
-            betIdx = betCombo.getSelectedIndex();
-            betAmt = Double.parseDouble(betField.getText().trim());
-            if (betAmt <= 0) throw new NumberFormatException();
+            Bet.Type type = (Bet.Type)typeCombo.getSelectedItem();
+            int[] lanes = picks(pickCombos, type);
+            double betAmt = Double.parseDouble(betField.getText().trim());
+            double betOdds = betOdds(type, lanes, confs, outcomes);
+            if (betAmt <= 0 || Double.isNaN(betOdds) || Double.isInfinite(betOdds)) {
+                throw new NumberFormatException();
+            }
+            bet = new Bet(type, lanes, betAmt, betOdds);
         } catch(Exception ex) {
             JOptionPane.showMessageDialog(this,"Invalid bet.");
             return;
         }
-        double betOdds = oddsArr[betIdx];
 
-        // disable controls
-        laneCombo.setEnabled(false);
-        lengthCombo.setEnabled(false);
-        terrainCombo.setEnabled(false);
-        for (Component comp: horseInputPanel.getComponents()) comp.setEnabled(false);
-        startBtn.setEnabled(false);
+        setControlsEnabled(false);
 
         // start race
         trackPanel.setupRace(
-                horses, trackLen, terrain,
-                betIdx, betAmt, betOdds,
-                () -> {
-                    laneCombo.setEnabled(true);
-                    lengthCombo.setEnabled(true);
-                    terrainCombo.setEnabled(true);
-                    for (Component comp: horseInputPanel.getComponents()) comp.setEnabled(true);
-                    startBtn.setEnabled(true);
-                }
+                horses, track,
+                bet,
+                () -> setControlsEnabled(true)
         );
         pack();
     }
 
+    // Lock or unlock the race setup while pricing or racing
+    private void setControlsEnabled(boolean enabled) {
+        laneCombo.setEnabled(enabled);
+        lengthCombo.setEnabled(enabled);
+        terrainCombo.setEnabled(enabled);
+        for (Component comp: horseInputPanel.getComponents()) comp.setEnabled(enabled);
+        startBtn.setEnabled(enabled);
+    }
+
+    // Lanes chosen in the pick boxes that this bet type uses
+    private static int[] picks(List<JComboBox<String>> pickCombos, Bet.Type type) {
+        int[] lanes = new int[type.getPicks()];
+        for (int i=0; i<lanes.length; i++) lanes[i] = pickCombos.get(i).getSelectedIndex();
+        return lanes;
+    }
+
+    // Decimal odds for a bet, NaN if the same horse is picked twice
+    private static double betOdds(Bet.Type type, int[] lanes, double[] confs, OutcomeCounter outcomes) {
+        for (int i=0; i<lanes.length; i++) {
+            for (int j=0; j<i; j++) {
+                if (lanes[i] == lanes[j]) return Double.NaN;
+            }
+        }
+        if (type == Bet.Type.WIN) return 1.0/confs[lanes[0]];
+        return Bet.fairOdds(outcomes, type, lanes);
+    }
+
     // -------------------------------------------------------------------
     // Panel that draws & animates the race
     // -------------------------------------------------------------------
     private static class TrackPanel extends JPanel {
-        private List<Horse> horses;
-        private int trackLen;
-        private String terrain;
+        private RaceEngine engine;
+        private RaceEventLog eventLog;
+        private RaceEventLogger consoleLog;
         private Timer timer;
-        private int betIdx;
-        private double betAmt, betOdds;
+        private Bet bet;
         private Runnable onFinish;
-        private long startTime;
-
-        private String eventMessage;
-        private long eventTimeMs;
-        private int[] frozenFrames;
 
         public TrackPanel() {
             setPreferredSize(new Dimension(800,300));
@@ -178,173 +249,93 @@ public class RaceGUI extends JFrame {
 
         public void setupRace(
                 List<Horse> horses,
-                int length,
-                String terrain,
-                int betIdx,
-                double betAmt,
-                double betOdds,
+                Track track,
+                Bet bet,
                 Runnable onFinish
         ) {
-            this.horses = horses;
-            this.trackLen = length;
-            this.terrain = terrain;
-            this.betIdx = betIdx;
-            this.betAmt = betAmt;
-            this.betOdds = betOdds;
+            this.engine = new RaceEngine(horses, track);
+            this.bet = bet;
             this.onFinish = onFinish;
-            horses.forEach(Horse::goBackToStart);
-            this.eventMessage = null;
-            this.frozenFrames = new int[horses.size()];
+
+            // screen messages and console log read the race's events;
+            // both drop rather than hold up the timer
+            RaceEventBus bus = new RaceEventBus(1024);
+            this.eventLog = new RaceEventLog(bus, engine.getNames());
+            stopConsoleLog();
+            this.consoleLog = new RaceEventLogger(bus, RaceEventBus.Policy.DROP, System.out,
+                    engine.getNames(), false);
+            consoleLog.start();
+            engine.setEventBus(bus);
 
             if (timer != null) timer.stop();
-            startTime = System.currentTimeMillis();
             timer = new Timer(30, e->step());
             timer.start();
         }
 
         private void step() {
-            double baseInc = 0.000002;
-            double factor = terrain.equals("Muddy") ? 0.5
-                    : terrain.equals("Icy")   ? 0.25
-                    : 1.0;
-            double slipProb = terrain.equals("Icy")   ? 0.005 : 0.0;
-            double tripProb = terrain.equals("Muddy") ? 0.005 : 0.0;
-
-            for (int i = 0; i < horses.size(); i++) {
-                Horse h = horses.get(i);
-
-                if (frozenFrames[i] > 0) {
-                    frozenFrames[i]--;
-                    continue;
-                }
-                if (h.hasFallen()) continue;
-
-                // move
-                if (Math.random() < h.getConfidence()) {
-                    h.moveForward();
-                    if (h.getDistanceTravelled() % 10 == 0) {
-                        double newConf = h.getConfidence() + baseInc * factor;
-                        h.setConfidence(Math.max(0.01, Math.min(1.0, newConf)));
-                    }
-                }
-                // fall
-                double fallProb = 0.001 * h.getConfidence() * h.getConfidence();
-                if (Math.random() < fallProb) {
-                    h.fall();
-                }
-                // icy slip
-                if (slipProb > 0 && Math.random() < slipProb) {
-                    double newConf = h.getConfidence() - 0.2;
-                    h.setConfidence(Math.max(0.01, newConf));
-                    frozenFrames[i] = 5;
-                    eventMessage = h.getName() + " slipped on the ice!";
-                    eventTimeMs = System.currentTimeMillis();
-                }
-                // muddy trip
-                if (tripProb > 0 && Math.random() < tripProb) {
-                    double newConf = h.getConfidence() - 0.15;
-                    h.setConfidence(Math.max(0.01, newConf));
-                    frozenFrames[i] = 5;
-                    eventMessage = h.getName() + " tripped in the mud!";
-                    eventTimeMs = System.currentTimeMillis();
-                }
-            }
+            boolean finished = engine.step();
+            eventLog.update();
+            // exotic bets are settled on the full finishing order
+            if (finished && bet.needsFullOrder()) finished = engine.isComplete();
 
             repaint();
 
-            boolean anyWin = horses.stream()
-                    .anyMatch(h -> h.getDistanceTravelled() >= trackLen);
-            boolean allFall = horses.stream()
-                    .allMatch(Horse::hasFallen);
-
-            if (anyWin || allFall) {
+            if (finished) {
                 timer.stop();
-                Horse winner = null;
-                if (anyWin) {
-                    winner = horses.stream()
-                            .filter(h->h.getDistanceTravelled()>=trackLen)
-                            .findFirst().get();
+                stopConsoleLog();
+                Horse winner = engine.getWinner();
+                if (winner != null) {
                     JOptionPane.showMessageDialog(
-                            this, "🏆 " + winner.getName() + " wins!"
+                            this, "🏆 " + winner.getName() + " wins!" + finishingOrder()
                     );
                 } else {
                     JOptionPane.showMessageDialog(
                             this, "❌ All horses fell!"
                     );
                 }
-                if (winner != null && horses.indexOf(winner) == betIdx) {
-                    double payout = betAmt * betOdds;
+                if (bet.wins(engine)) {
+                    double payout = bet.getAmount() * bet.getOdds();
                     JOptionPane.showMessageDialog(
                             this,
-                            String.format("You won! Payout: %.2f", payout)
+                            String.format("Your %s bet won! Payout: %.2f", bet.getType(), payout)
                     );
                 } else {
                     JOptionPane.showMessageDialog(
                             this,
-                            String.format("You lost your bet of %.2f", betAmt)
+                            String.format("You lost your bet of %.2f", bet.getAmount())
                     );
                 }
                 onFinish.run();
             }
         }
 
-        @Override
-        protected void paintComponent(Graphics g) {
-            super.paintComponent(g);
-            if (horses == null) return;
-
-            int hgt = getHeight(), lanes = horses.size();
-            int laneY = hgt / (lanes + 1);
-
-            Graphics2D g2 = (Graphics2D)g;
-            Font horseF = new Font("Segoe UI Emoji", Font.PLAIN, 40);
-            Font infoF  = new Font("SansSerif", Font.PLAIN, 12);
-
-            // draw lanes
-            g2.setColor(Color.LIGHT_GRAY);
-            for (int i=1; i<=lanes; i++) {
-                int y = i * laneY;
-                g2.drawLine(10, y, 10 + trackLen, y);
+        private void stopConsoleLog() {
+            if (consoleLog == null) return;
+            try {
+                consoleLog.close();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
             }
+            consoleLog = null;
+        }
 
-            // event message for 2 seconds
-            if (eventMessage != null &&
-                    System.currentTimeMillis() - eventTimeMs < 2000) {
-                g2.setFont(infoF);
-                g2.setColor(Color.BLUE);
-                g2.drawString(eventMessage, 10, 20);
+        // "1. A  2. B ..." when more than the winner is known
+        private String finishingOrder() {
+            if (engine.getFinishedCount() < 2) return "";
+            StringBuilder sb = new StringBuilder("\nFinishing order:");
+            for (int p = 0; p < engine.getFinishedCount(); p++) {
+                sb.append(' ').append(p+1).append(". ")
+                        .append(engine.getHorses().get(engine.getFinishLane(p)).getName());
             }
+            return sb.toString();
+        }
 
-            // draw each horse
-            for (int i=0; i<lanes; i++) {
-                Horse hr = horses.get(i);
-                int x = 10 + hr.getDistanceTravelled();
-                int y = (i+1) * laneY;
-
-                if (hr.hasFallen()) {
-                    g2.setFont(new Font("SansSerif", Font.BOLD, 40));
-                    g2.setColor(Color.RED);
-                    g2.drawString("❌", x-20, y+20);
-                } else {
-                    String horse = "🐎";
-                    g2.setFont(horseF);
-                    int fw = g2.getFontMetrics().stringWidth(horse);
-                    AffineTransform old = g2.getTransform();
-                    g2.translate(x+fw, y-20);
-                    g2.scale(-1, 1);
-                    g2.setColor(Color.BLACK);
-                    g2.drawString(horse, 0, 0);
-                    g2.setTransform(old);
-                }
-
-                g2.setFont(infoF);
-                g2.setColor(Color.BLACK);
-                g2.drawString(hr.getName(), x+30, y+4);
-                g2.drawString(
-                        String.format("Conf: %.2f", hr.getConfidence()),
-                        x+30, y+18
-                );
-            }
+        @Override
+        protected void paintComponent(Graphics g) {
+            super.paintComponent(g);
+            if (engine == null) return;
+            RaceRenderer.paint((Graphics2D)g,
+                    engine.snapshot(eventLog.getMessages(engine.getTick())), getHeight());
         }
     }
 
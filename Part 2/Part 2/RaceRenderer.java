@@ -0,0 +1,84 @@
+import java.awt.*;
+import java.awt.geom.AffineTransform;
+
+/**
+ * Draws one RaceFrame. Shared by the live TrackPanel and the offline exporter
+ * so both produce the same picture.
+ */
+public final class RaceRenderer {
+    private static final Font HORSE_FONT  = new Font("Segoe UI Emoji", Font.PLAIN, 40);
+    private static final Font FALLEN_FONT = new Font("SansSerif", Font.BOLD, 40);
+    private static final Font INFO_FONT   = new Font("SansSerif", Font.PLAIN, 12);
+
+    private static final Color MUD_COLOR = new Color(150, 100, 50);
+    private static final Color ICE_COLOR = new Color(120, 190, 230);
+
+    private RaceRenderer() {
+    }
+
+    private static Color terrainColor(Terrain t) {
+        if (t.getTripProb() > 0) return MUD_COLOR;
+        if (t.getSlipProb() > 0) return ICE_COLOR;
+        return Color.LIGHT_GRAY;
+    }
+
+    /**
+     * Paint lanes, horses and the current event message.
+     * @param g2    target graphics, background already cleared
+     * @param frame what to draw
+     * @param hgt   height of the drawing area in px
+     */
+    public static void paint(Graphics2D g2, RaceFrame frame, int hgt) {
+        int lanes = frame.getLanes();
+        int laneY = hgt / (lanes + 1);
+
+        // draw lanes, coloured by the ground under each stretch
+        Track track = frame.getTrack();
+        for (int s=0; s<track.getSegments(); s++) {
+            g2.setColor(terrainColor(track.getTerrain(s)));
+            int x0 = 10 + track.getSegmentStart(s), x1 = 10 + track.getSegmentEnd(s);
+            for (int i=1; i<=lanes; i++) {
+                int y = i * laneY;
+                g2.drawLine(x0, y, x1, y);
+            }
+        }
+
+        // recent event messages
+        g2.setFont(INFO_FONT);
+        g2.setColor(Color.BLUE);
+        String[] messages = frame.getEventMessages();
+        for (int i=0; i<messages.length; i++) {
+            g2.drawString(messages[i], 10 + 200 * i, 20);
+        }
+
+        // draw each horse
+        for (int i=0; i<lanes; i++) {
+            int x = 10 + frame.getDistance(i);
+            int y = (i+1) * laneY;
+
+            if (frame.hasFallen(i)) {
+                g2.setFont(FALLEN_FONT);
+                g2.setColor(Color.RED);
+                g2.drawString("❌", x-20, y+20);
+            } else {
+                String horse = "🐎";
+                g2.setFont(HORSE_FONT);
+                int fw = g2.getFontMetrics().stringWidth(horse);
+                AffineTransform old = g2.getTransform();
+                g2.translate(x+fw, y-20);
+                g2.scale(-1, 1);
+                g2.setColor(Color.BLACK);
+                g2.drawString(horse, 0, 0);
+                g2.setTransform(old);
+            }
+
+            g2.setFont(INFO_FONT);
+            g2.setColor(Color.BLACK);
+            g2.drawString(frame.getName(i), x+30, y+4);
+            g2.drawString(
+                    String.format("Conf: %.2f", frame.getConfidence(i)),
+                    x+30, y+18
+            );
+        }
+    }
+}
@@ -0,0 +1,88 @@
+// RaceSim.java
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs many GUI-rule races with fixed seeds and prints the totals.
+ *
+ *   java RaceSim local       [options] [--threads N]
+ *   java RaceSim coordinator [options] [--port P] [--workers N] [--shard S]
+ *   java RaceSim worker host port
+ *
+ * Options: --seeds FROM TO, --track LEN, --terrain Normal|Muddy|Icy
+ *          or a course such as Normal:2,Muddy:1,Icy:1,
+ *          --horse Name:conf (repeat for each lane)
+ */
+public class RaceSim {
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.out.println("Usage: java RaceSim local|coordinator|worker ...");
+            return;
+        }
+        if (args[0].equals("worker")) {
+            if (args.length < 3) {
+                System.out.println("Usage: java RaceSim worker host port");
+                return;
+            }
+            int shards = SimWorker.run(args[1], Integer.parseInt(args[2]));
+            System.out.println("Worker done after " + shards + " shards");
+            return;
+        }
+
+        long fromSeed = 0, toSeed = 100_000, shard = 10_000;
+        int trackLen = 700, port = 5000, workers = 0;
+        int threads = Runtime.getRuntime().availableProcessors();
+        String terrain = "Normal";
+        List<String> names = new ArrayList<>();
+        List<Double> confs = new ArrayList<>();
+        for (int i = 1; i < args.length; i++) {
+            switch (args[i]) {
+                case "--seeds":   fromSeed = Long.parseLong(args[++i]);
+                                  toSeed = Long.parseLong(args[++i]); break;
+                case "--track":   trackLen = Integer.parseInt(args[++i]); break;
+                case "--terrain": terrain = args[++i]; break;
+                case "--port":    port = Integer.parseInt(args[++i]); break;
+                case "--workers": workers = Integer.parseInt(args[++i]); break;
+                case "--shard":   shard = Long.parseLong(args[++i]); break;
+                case "--threads": threads = Integer.parseInt(args[++i]); break;
+                case "--horse":
+                    String[] parts = args[++i].split(":");
+                    names.add(parts[0]);
+                    confs.add(parts.length > 1 ? Double.parseDouble(parts[1]) : 0.7);
+                    break;
+                default:
+                    System.out.println("Unknown option " + args[i]);
+                    return;
+            }
+        }
+        if (names.isEmpty()) {
+            // same line-up as the terminal version
+            String[] horseNames       = {"Thunder", "Lightning", "Storm", "Blaze"};
+            double[] confidenceValues = {  0.7,       0.8,        0.6,     0.75  };
+            for (int i = 0; i < horseNames.length; i++) {
+                names.add(horseNames[i]);
+                confs.add(confidenceValues[i]);
+            }
+        }
+        double[] confArr = new double[confs.size()];
+        for (int i = 0; i < confArr.length; i++) {
+            confArr[i] = Math.max(0.01, confs.get(i));  // never allow zero
+        }
+        SimulationJob job = new SimulationJob(names.toArray(new String[0]), confArr,
+                Track.fromSpec(trackLen, terrain));
+
+        long start = System.currentTimeMillis();
+        SimulationResult result;
+        if (args[0].equals("local")) {
+            result = job.runParallel(fromSeed, toSeed, threads);
+        } else if (args[0].equals("coordinator")) {
+            result = new SimCoordinator(job, fromSeed, toSeed, shard).run(port, workers);
+        } else {
+            System.out.println("Unknown mode " + args[0]);
+            return;
+        }
+        System.out.print(result.report(job));
+        System.out.printf("Took %d ms%n", System.currentTimeMillis() - start);
+    }
+}
@@ -0,0 +1,171 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Splits a seed range into shards and hands them to SimWorker processes
+ * over TCP. A shard only counts once its result has been read back in full;
+ * if the worker drops or goes quiet first, the shard goes back in the queue
+ * for someone else. Merging is plain addition, so the total matches a
+ * single-process run over the same seeds.
+ *
+ * Protocol (DataOutputStream): coordinator sends the job, then
+ * SHARD from to; the worker answers with HEARTBEAT every few seconds
+ * while it works and RESULT plus the result when done. STOP ends it.
+ */
+public class SimCoordinator {
+    static final int SHARD = 1;
+    static final int STOP = 0;
+    static final int HEARTBEAT = 2;
+    static final int RESULT = 3;
+    // workers send a heartbeat this often while running a shard
+    static final int HEARTBEAT_MS = 5_000;
+    // a worker that says nothing for this long is treated as lost,
+    // however big its shard is
+    private static final int WORKER_TIMEOUT_MS = 6 * HEARTBEAT_MS;
+
+    private final SimulationJob job;
+    private final BlockingQueue<long[]> pending = new LinkedBlockingQueue<>();
+    private final CountDownLatch remaining;
+    private final SimulationResult total;
+
+    /**
+     * @param job       what to simulate
+     * @param fromSeed  first seed (inclusive)
+     * @param toSeed    last seed (exclusive)
+     * @param shardSize races per shard
+     */
+    public SimCoordinator(SimulationJob job, long fromSeed, long toSeed, long shardSize) {
+        if (shardSize < 1 || toSeed < fromSeed) {
+            throw new IllegalArgumentException("Bad seed range or shard size");
+        }
+        this.job = job;
+        this.total = new SimulationResult(job.getLanes());
+        for (long s = fromSeed; s < toSeed; s += shardSize) {
+            pending.add(new long[]{s, Math.min(toSeed, s + shardSize)});
+        }
+        this.remaining = new CountDownLatch(pending.size());
+    }
+
+    /**
+     * Serve shards until all are done.
+     * @param port         port to listen on (0 picks a free one)
+     * @param localWorkers worker processes to start on this machine
+     * @return the merged result
+     */
+    public SimulationResult run(int port, int localWorkers) throws IOException, InterruptedException {
+        List<Process> children = new ArrayList<>();
+        try (ServerSocket server = new ServerSocket(port)) {
+            System.out.println("Coordinator listening on port " + server.getLocalPort()
+                    + ", " + remaining.getCount() + " shards");
+
+            Thread acceptor = new Thread(() -> acceptLoop(server), "sim-accept");
+            acceptor.setDaemon(true);
+            acceptor.start();
+
+            for (int i = 0; i < localWorkers; i++) {
+                children.add(startLocalWorker(server.getLocalPort()));
+            }
+            remaining.await();
+        } finally {
+            for (Process p : children) {
+                if (!p.waitFor(5, TimeUnit.SECONDS)) p.destroy();
+            }
+        }
+        synchronized (total) {
+            return total;
+        }
+    }
+
+    private void acceptLoop(ServerSocket server) {
+        try {
+            while (true) {
+                Socket socket = server.accept();
+                Thread t = new Thread(() -> serve(socket), "sim-worker-" + socket.getRemoteSocketAddress());
+                t.setDaemon(true);
+                t.start();
+            }
+        } catch (SocketException e) {
+            // server closed, all shards done
+        } catch (IOException e) {
+            System.out.println("Stopped accepting workers: " + e.getMessage());
+        }
+    }
+
+    // feed one worker until the queue is empty, requeueing its shard if it fails
+    private void serve(Socket socket) {
+        long[] shard = null;
+        try (Socket s = socket;
+             DataInputStream in = new DataInputStream(new BufferedInputStream(s.getInputStream()));
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(s.getOutputStream()))) {
+            s.setSoTimeout(WORKER_TIMEOUT_MS);
+            job.writeTo(out);
+            out.flush();
+
+            while (remaining.getCount() > 0) {
+                shard = pending.poll(100, TimeUnit.MILLISECONDS);
+                if (shard == null) continue;
+
+                out.writeInt(SHARD);
+                out.writeLong(shard[0]);
+                out.writeLong(shard[1]);
+                out.flush();
+
+                int reply;
+                while ((reply = in.readInt()) == HEARTBEAT) {
+                    // still working
+                }
+                if (reply != RESULT) throw new IOException("Unexpected reply " + reply);
+                SimulationResult part = SimulationResult.readFrom(in);
+                if (part.getLanes() != job.getLanes()) {
+                    throw new IOException("Worker returned " + part.getLanes()
+                            + " lanes for a " + job.getLanes() + "-lane job");
+                }
+                if (part.getRaces() != shard[1] - shard[0]) {
+                    throw new IOException("Worker returned " + part.getRaces()
+                            + " races for shard of " + (shard[1] - shard[0]));
+                }
+                synchronized (total) {
+                    total.merge(part);
+                }
+                shard = null;
+                remaining.countDown();
+            }
+            out.writeInt(STOP);
+            out.flush();
+        } catch (IOException | RuntimeException e) {
+            // a bad reply from one worker must not strand its shard
+            lost(socket, shard, e.toString());
+        } catch (InterruptedException e) {
+            lost(socket, shard, "interrupted");
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void lost(Socket socket, long[] shard, String why) {
+        if (shard == null) return;
+        pending.add(shard);
+        System.out.println("Lost worker " + socket.getRemoteSocketAddress() + " (" + why
+                + "), shard " + shard[0] + "-" + shard[1] + " requeued");
+    }
+
+    private static Process startLocalWorker(int port) throws IOException {
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        return new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                "RaceSim", "worker", "localhost", String.valueOf(port))
+                .inheritIO()
+                .start();
+    }
+}
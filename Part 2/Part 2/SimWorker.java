@@ -0,0 +1,72 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.Socket;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Connects to a SimCoordinator, runs the shards it is given on every core
+ * and sends back each partial result until told to stop. A timer thread
+ * sends heartbeats while a shard runs, so a long shard is not mistaken
+ * for a dead worker.
+ */
+public class SimWorker {
+    private SimWorker() {
+    }
+
+    /**
+     * @return number of shards completed
+     */
+    public static int run(String host, int port) throws IOException, InterruptedException {
+        int threads = Runtime.getRuntime().availableProcessors();
+        int shards = 0;
+        ScheduledExecutorService heartbeat = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "sim-heartbeat");
+            t.setDaemon(true);
+            return t;
+        });
+        try (Socket s = new Socket(host, port);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(s.getInputStream()));
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(s.getOutputStream()))) {
+            SimulationJob job = SimulationJob.readFrom(in);
+            while (in.readInt() == SimCoordinator.SHARD) {
+                long from = in.readLong();
+                long to = in.readLong();
+                ScheduledFuture<?> beat = heartbeat.scheduleAtFixedRate(() -> sendHeartbeat(out),
+                        SimCoordinator.HEARTBEAT_MS, SimCoordinator.HEARTBEAT_MS, TimeUnit.MILLISECONDS);
+                SimulationResult result;
+                try {
+                    result = job.runParallel(from, to, threads);
+                } finally {
+                    beat.cancel(false);
+                }
+                // the stream is shared with the heartbeat thread
+                synchronized (out) {
+                    out.writeInt(SimCoordinator.RESULT);
+                    result.writeTo(out);
+                    out.flush();
+                }
+                shards++;
+            }
+        } finally {
+            heartbeat.shutdownNow();
+        }
+        return shards;
+    }
+
+    private static void sendHeartbeat(DataOutputStream out) {
+        try {
+            synchronized (out) {
+                out.writeInt(SimCoordinator.HEARTBEAT);
+                out.flush();
+            }
+        } catch (IOException e) {
+            // the main thread will see the broken connection
+        }
+    }
+}
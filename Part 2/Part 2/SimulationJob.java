@@ -0,0 +1,126 @@
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * A batch of GUI-rule races over a range of seeds.
+ * Race number n uses new Random(n), so any split of the seed range
+ * gives the same merged result as running it all in one go.
+ */
+public class SimulationJob {
+    private final String[] names;
+    private final double[] confidences;
+    private final Track track;
+
+    /**
+     * @param names       one horse name per lane (2-6)
+     * @param confidences starting confidence per lane
+     * @param track       course to run
+     */
+    public SimulationJob(String[] names, double[] confidences, Track track) {
+        if (names.length < 2 || names.length > 6) {
+            throw new IllegalArgumentException("Need between 2 and 6 lanes");
+        }
+        if (names.length != confidences.length) {
+            throw new IllegalArgumentException("Need one confidence per horse");
+        }
+        this.names = names;
+        this.confidences = confidences;
+        this.track = track;
+    }
+
+    public int getLanes() {
+        return names.length;
+    }
+
+    public String getName(int lane) {
+        return names[lane];
+    }
+
+    /**
+     * Run one race per seed in [fromSeed, toSeed).
+     */
+    public SimulationResult run(long fromSeed, long toSeed) {
+        SimulationResult result = new SimulationResult(names.length);
+        for (long seed = fromSeed; seed < toSeed; seed++) {
+            runOne(seed, result);
+        }
+        return result;
+    }
+
+    /**
+     * Same as run, split across threads. Each thread records into its own
+     * SimulationResult and they are merged at the end, so the answer is the
+     * same as a single-threaded run.
+     */
+    public SimulationResult runParallel(long fromSeed, long toSeed, int threads) throws InterruptedException {
+        if (threads <= 1) return run(fromSeed, toSeed);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<SimulationResult>> parts = new ArrayList<>();
+            long chunk = Math.max(1, (toSeed - fromSeed + threads - 1) / threads);
+            for (long s = fromSeed; s < toSeed; s += chunk) {
+                long from = s, to = Math.min(toSeed, s + chunk);
+                parts.add(pool.submit(() -> run(from, to)));
+            }
+            SimulationResult total = new SimulationResult(names.length);
+            for (Future<SimulationResult> part : parts) {
+                try {
+                    total.merge(part.get());
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException("Simulation thread failed", e.getCause());
+                }
+            }
+            return total;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private void runOne(long seed, SimulationResult result) {
+        // fresh horses every race, confidence changes during a race
+        List<Horse> horses = new ArrayList<>(names.length);
+        for (int i = 0; i < names.length; i++) {
+            horses.add(new Horse(names[i].charAt(0), names[i], confidences[i]));
+        }
+        RaceEngine engine = new RaceEngine(horses, track, new Random(seed));
+        while (!engine.step()) {
+            // keep going
+        }
+        result.record(engine);
+        // the GUI stops at the winner; bets on the rest need the full order
+        while (!engine.isComplete()) {
+            engine.step();
+        }
+        result.recordComplete(engine);
+    }
+
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeInt(names.length);
+        for (int i = 0; i < names.length; i++) {
+            out.writeUTF(names[i]);
+            out.writeDouble(confidences[i]);
+        }
+        track.writeTo(out);
+    }
+
+    public static SimulationJob readFrom(DataInput in) throws IOException {
+        int lanes = in.readInt();
+        if (lanes < 2 || lanes > 6) throw new IOException("Bad lane count " + lanes);
+        String[] names = new String[lanes];
+        double[] confidences = new double[lanes];
+        for (int i = 0; i < lanes; i++) {
+            names[i] = in.readUTF();
+            confidences[i] = in.readDouble();
+        }
+        Track track = Track.readFrom(in);
+        return new SimulationJob(names, confidences, track);
+    }
+}
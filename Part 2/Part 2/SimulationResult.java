@@ -0,0 +1,236 @@
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Totals from a batch of races. Partial results from different
+ * threads or machines can be merged in any order.
+ * Per-horse distributions are kept in fixed-size TickSketches,
+ * so memory does not depend on how many races were run.
+ */
+public class SimulationResult {
+    // final confidence is stored in sketches as a whole number of 1/10000ths
+    public static final int CONFIDENCE_SCALE = 10_000;
+
+    private final int lanes;
+    private long races;
+    private long noWinner;
+    private final long[] wins;
+    private final long[] falls;
+    private final TickSketch[] winningTicks;
+    private final TickSketch[] finishTicks;
+    private final TickSketch[] fallTicks;
+    private final TickSketch[] finalConfidence;
+    private OutcomeCounter outcomes;
+
+    public SimulationResult(int lanes) {
+        this.lanes = lanes;
+        this.wins = new long[lanes];
+        this.falls = new long[lanes];
+        this.winningTicks = newSketches(lanes);
+        this.finishTicks = newSketches(lanes);
+        this.fallTicks = newSketches(lanes);
+        this.finalConfidence = newSketches(lanes);
+        this.outcomes = new OutcomeCounter(lanes);
+    }
+
+    private static TickSketch[] newSketches(int lanes) {
+        TickSketch[] sketches = new TickSketch[lanes];
+        for (int i = 0; i < lanes; i++) {
+            sketches[i] = new TickSketch();
+        }
+        return sketches;
+    }
+
+    /**
+     * Add a race that has just been won (or where everyone fell).
+     */
+    public void record(RaceEngine engine) {
+        races++;
+        List<Horse> horses = engine.getHorses();
+        Horse winner = engine.getWinner();
+        if (winner == null) noWinner++;
+        for (int i = 0; i < lanes; i++) {
+            Horse h = horses.get(i);
+            if (h == winner) {
+                wins[i]++;
+                winningTicks[i].record(engine.getTick());
+            }
+            if (h.hasFallen()) falls[i]++;
+        }
+    }
+
+    /**
+     * Add the finishing order, finish and fall ticks and final confidence
+     * of the same race once it is complete.
+     */
+    public void recordComplete(RaceEngine engine) {
+        outcomes.record(engine);
+        List<Horse> horses = engine.getHorses();
+        for (int i = 0; i < lanes; i++) {
+            if (engine.getFinishTick(i) >= 0) finishTicks[i].record(engine.getFinishTick(i));
+            if (engine.getFallTick(i) >= 0) fallTicks[i].record(engine.getFallTick(i));
+            finalConfidence[i].record(Math.round(horses.get(i).getConfidence() * CONFIDENCE_SCALE));
+        }
+    }
+
+    public void merge(SimulationResult other) {
+        if (other.lanes != lanes) {
+            throw new IllegalArgumentException("Lane counts differ");
+        }
+        races += other.races;
+        noWinner += other.noWinner;
+        for (int i = 0; i < lanes; i++) {
+            wins[i] += other.wins[i];
+            falls[i] += other.falls[i];
+            winningTicks[i].merge(other.winningTicks[i]);
+            finishTicks[i].merge(other.finishTicks[i]);
+            fallTicks[i].merge(other.fallTicks[i]);
+            finalConfidence[i].merge(other.finalConfidence[i]);
+        }
+        outcomes.merge(other.outcomes);
+    }
+
+    public int getLanes() {
+        return lanes;
+    }
+
+    public long getRaces() {
+        return races;
+    }
+
+    public long getNoWinner() {
+        return noWinner;
+    }
+
+    public long getWins(int lane) {
+        return wins[lane];
+    }
+
+    public long getFalls(int lane) {
+        return falls[lane];
+    }
+
+    // ticks taken by this lane in the races it won
+    public TickSketch getWinningTicks(int lane) {
+        return winningTicks[lane];
+    }
+
+    // tick each finisher crossed the line, from complete races
+    public TickSketch getFinishTicks(int lane) {
+        return finishTicks[lane];
+    }
+
+    // tick the horse fell, from complete races where it did
+    public TickSketch getFallTicks(int lane) {
+        return fallTicks[lane];
+    }
+
+    // confidence at the end of each complete race, times CONFIDENCE_SCALE
+    public TickSketch getFinalConfidence(int lane) {
+        return finalConfidence[lane];
+    }
+
+    // finishing orders, for place/show/exacta/trifecta odds
+    public OutcomeCounter getOutcomes() {
+        return outcomes;
+    }
+
+    /**
+     * One line per horse with win rate, falls and winning tick percentiles.
+     */
+    public String report(SimulationJob job) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("Races: %d, no winner: %d%n", races, noWinner));
+        for (int i = 0; i < lanes; i++) {
+            TickSketch t = winningTicks[i];
+            sb.append(String.format("%-10s wins %8d (%6.2f%%)  falls %8d  win tick p50 %d p95 %d p99 %d%n",
+                    job.getName(i), wins[i], races == 0 ? 0 : 100.0 * wins[i] / races, falls[i],
+                    t.getValueAtPercentile(50), t.getValueAtPercentile(95), t.getValueAtPercentile(99)));
+        }
+        for (int i = 0; i < lanes; i++) {
+            TickSketch f = finishTicks[i], fl = fallTicks[i], c = finalConfidence[i];
+            sb.append(String.format("%-10s finish p50/p95/p99 %d/%d/%d  fall %d/%d/%d  confidence %.2f/%.2f/%.2f%n",
+                    job.getName(i),
+                    f.getValueAtPercentile(50), f.getValueAtPercentile(95), f.getValueAtPercentile(99),
+                    fl.getValueAtPercentile(50), fl.getValueAtPercentile(95), fl.getValueAtPercentile(99),
+                    (double) c.getValueAtPercentile(50) / CONFIDENCE_SCALE,
+                    (double) c.getValueAtPercentile(95) / CONFIDENCE_SCALE,
+                    (double) c.getValueAtPercentile(99) / CONFIDENCE_SCALE));
+        }
+        for (int i = 0; i < lanes; i++) {
+            sb.append(String.format("%-10s place odds %7.2f  show odds %7.2f%n", job.getName(i),
+                    outcomes.fairOdds(outcomes.getPlaceCount(i)), outcomes.fairOdds(outcomes.getShowCount(i))));
+        }
+        appendFavourites(sb, job);
+        return sb.toString();
+    }
+
+    // most likely exacta and trifecta
+    private void appendFavourites(StringBuilder sb, SimulationJob job) {
+        int[] bestExacta = null, bestTrifecta = null;
+        long exactaCount = 0, trifectaCount = 0;
+        for (int a = 0; a < lanes; a++) {
+            for (int b = 0; b < lanes; b++) {
+                if (b == a) continue;
+                long c2 = outcomes.getExactaCount(a, b);
+                if (c2 > exactaCount) {
+                    exactaCount = c2;
+                    bestExacta = new int[]{a, b};
+                }
+                for (int c = 0; c < lanes; c++) {
+                    if (c == a || c == b) continue;
+                    long c3 = outcomes.getTrifectaCount(a, b, c);
+                    if (c3 > trifectaCount) {
+                        trifectaCount = c3;
+                        bestTrifecta = new int[]{a, b, c};
+                    }
+                }
+            }
+        }
+        if (bestExacta != null) {
+            sb.append(String.format("Favourite exacta   %s-%s odds %.2f%n",
+                    job.getName(bestExacta[0]), job.getName(bestExacta[1]), outcomes.fairOdds(exactaCount)));
+        }
+        if (bestTrifecta != null) {
+            sb.append(String.format("Favourite trifecta %s-%s-%s odds %.2f%n",
+                    job.getName(bestTrifecta[0]), job.getName(bestTrifecta[1]), job.getName(bestTrifecta[2]),
+                    outcomes.fairOdds(trifectaCount)));
+        }
+    }
+
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeInt(lanes);
+        out.writeLong(races);
+        out.writeLong(noWinner);
+        for (int i = 0; i < lanes; i++) {
+            out.writeLong(wins[i]);
+            out.writeLong(falls[i]);
+            winningTicks[i].writeTo(out);
+            finishTicks[i].writeTo(out);
+            fallTicks[i].writeTo(out);
+            finalConfidence[i].writeTo(out);
+        }
+        outcomes.writeTo(out);
+    }
+
+    public static SimulationResult readFrom(DataInput in) throws IOException {
+        int lanes = in.readInt();
+        if (lanes < 2 || lanes > 6) throw new IOException("Bad lane count " + lanes);
+        SimulationResult r = new SimulationResult(lanes);
+        r.races = in.readLong();
+        r.noWinner = in.readLong();
+        for (int i = 0; i < lanes; i++) {
+            r.wins[i] = in.readLong();
+            r.falls[i] = in.readLong();
+            r.winningTicks[i] = TickSketch.readFrom(in);
+            r.finishTicks[i] = TickSketch.readFrom(in);
+            r.fallTicks[i] = TickSketch.readFrom(in);
+            r.finalConfidence[i] = TickSketch.readFrom(in);
+        }
+        r.outcomes = OutcomeCounter.readFrom(in);
+        if (r.outcomes.getLanes() != lanes) throw new IOException("Lane counts differ");
+        return r;
+    }
+}
@@ -0,0 +1,57 @@
+/**
+ * How a stretch of ground affects the horses on it.
+ */
+public class Terrain {
+    public static final Terrain NORMAL = new Terrain("Normal", 1.0,  0.0,   0.0);
+    public static final Terrain MUDDY  = new Terrain("Muddy",  0.5,  0.0,   0.005);
+    public static final Terrain ICY    = new Terrain("Icy",    0.25, 0.005, 0.0);
+
+    private final String name;
+    private final double moveFactor;
+    private final double slipProb;
+    private final double tripProb;
+
+    /**
+     * @param name       shown to the user
+     * @param moveFactor scales the confidence gained while moving (1 = normal)
+     * @param slipProb   chance per tick of slipping (confidence -0.2, frozen 5 ticks)
+     * @param tripProb   chance per tick of tripping (confidence -0.15, frozen 5 ticks)
+     */
+    public Terrain(String name, double moveFactor, double slipProb, double tripProb) {
+        this.name = name;
+        this.moveFactor = moveFactor;
+        this.slipProb = slipProb;
+        this.tripProb = tripProb;
+    }
+
+    /**
+     * One of the built-in terrains by name, ignoring case.
+     */
+    public static Terrain forName(String name) {
+        for (Terrain t : new Terrain[]{NORMAL, MUDDY, ICY}) {
+            if (t.name.equalsIgnoreCase(name)) return t;
+        }
+        throw new IllegalArgumentException("Unknown terrain " + name);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public double getMoveFactor() {
+        return moveFactor;
+    }
+
+    public double getSlipProb() {
+        return slipProb;
+    }
+
+    public double getTripProb() {
+        return tripProb;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
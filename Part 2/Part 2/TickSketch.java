@@ -0,0 +1,128 @@
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Fixed-size histogram of non-negative whole numbers (ticks), in the style of
+ * an HDR histogram: exact below 128, then 64 buckets per power of two,
+ * so any recorded value is known to within about 1.5%.
+ * Two sketches merge by adding their bucket counts.
+ */
+public class TickSketch {
+    private static final int PRECISION_BITS = 7;
+    private static final int SUB_BUCKETS = 1 << PRECISION_BITS;   // 128
+    private static final int HALF = SUB_BUCKETS / 2;               // 64
+    private static final int BUCKETS = SUB_BUCKETS + (64 - PRECISION_BITS) * HALF;
+
+    private final long[] counts = new long[BUCKETS];
+    private long totalCount;
+    private long min = Long.MAX_VALUE;
+    private long max = Long.MIN_VALUE;
+
+    /**
+     * Count one value. Negative values are treated as 0.
+     */
+    public void record(long value) {
+        if (value < 0) value = 0;
+        counts[indexOf(value)]++;
+        totalCount++;
+        if (value < min) min = value;
+        if (value > max) max = value;
+    }
+
+    /**
+     * Add all of another sketch's counts to this one.
+     */
+    public void merge(TickSketch other) {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] += other.counts[i];
+        }
+        totalCount += other.totalCount;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    public long getTotalCount() {
+        return totalCount;
+    }
+
+    public long getMin() {
+        return totalCount == 0 ? 0 : min;
+    }
+
+    public long getMax() {
+        return totalCount == 0 ? 0 : max;
+    }
+
+    /**
+     * Value below which the given percentage of recorded values fall.
+     * @param percentile 0-100
+     * @return the midpoint of the matching bucket, clamped to min/max; 0 if empty
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (totalCount == 0) return 0;
+        double p = Math.max(0, Math.min(100, percentile));
+        long target = Math.max(1, (long) Math.ceil(p / 100.0 * totalCount));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= target) {
+                long mid = lowestValueAt(i) + (bucketWidth(i) - 1) / 2;
+                return Math.max(getMin(), Math.min(getMax(), mid));
+            }
+        }
+        return getMax();
+    }
+
+    // bucket for a value: exact below SUB_BUCKETS, HALF buckets per doubling above
+    private static int indexOf(long value) {
+        if (value < SUB_BUCKETS) return (int) value;
+        int shift = 64 - Long.numberOfLeadingZeros(value) - PRECISION_BITS;
+        int mantissa = (int) (value >>> shift);   // HALF..SUB_BUCKETS-1
+        return SUB_BUCKETS + (shift - 1) * HALF + (mantissa - HALF);
+    }
+
+    private static long lowestValueAt(int index) {
+        if (index < SUB_BUCKETS) return index;
+        int shift = (index - SUB_BUCKETS) / HALF + 1;
+        long mantissa = (index - SUB_BUCKETS) % HALF + HALF;
+        return mantissa << shift;
+    }
+
+    private static long bucketWidth(int index) {
+        if (index < SUB_BUCKETS) return 1;
+        return 1L << ((index - SUB_BUCKETS) / HALF + 1);
+    }
+
+    /**
+     * Write only the non-empty buckets.
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeLong(totalCount);
+        out.writeLong(min);
+        out.writeLong(max);
+        int used = 0;
+        for (long c : counts) if (c != 0) used++;
+        out.writeInt(used);
+        for (int i = 0; i < BUCKETS; i++) {
+            if (counts[i] != 0) {
+                out.writeShort(i);
+                out.writeLong(counts[i]);
+            }
+        }
+    }
+
+    public static TickSketch readFrom(DataInput in) throws IOException {
+        TickSketch s = new TickSketch();
+        s.totalCount = in.readLong();
+        s.min = in.readLong();
+        s.max = in.readLong();
+        int used = in.readInt();
+        for (int i = 0; i < used; i++) {
+            int idx = in.readUnsignedShort();
+            if (idx >= BUCKETS) throw new IOException("Bad bucket index " + idx);
+            s.counts[idx] = in.readLong();
+        }
+        return s;
+    }
+}
@@ -0,0 +1,171 @@
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A course made of consecutive segments, each with its own terrain.
+ * The terrain numbers are copied into flat per-segment arrays once, and a
+ * per-distance array maps distanceTravelled straight to its segment, so the
+ * race loop finds the ground under a horse with two array reads.
+ */
+public class Track {
+    private final int length;
+    private final Terrain[] terrains;     // one per segment
+    private final int[] segmentEnds;      // exclusive end distance of each segment
+    private final double[] moveFactor;    // per segment
+    private final double[] slipProb;
+    private final double[] tripProb;
+    private final int[] segmentAt;        // per distance 0..length
+
+    /**
+     * @param lengths  length of each segment, in track units; must be positive
+     * @param terrains ground for each segment
+     */
+    public Track(int[] lengths, Terrain[] terrains) {
+        if (lengths.length == 0 || lengths.length != terrains.length) {
+            throw new IllegalArgumentException("Need one terrain per segment, at least one segment");
+        }
+        int n = lengths.length;
+        this.terrains = terrains.clone();
+        this.segmentEnds = new int[n];
+        this.moveFactor = new double[n];
+        this.slipProb = new double[n];
+        this.tripProb = new double[n];
+        int total = 0;
+        for (int s = 0; s < n; s++) {
+            if (lengths[s] <= 0) throw new IllegalArgumentException("Segment lengths must be positive");
+            total += lengths[s];
+            segmentEnds[s] = total;
+            moveFactor[s] = terrains[s].getMoveFactor();
+            slipProb[s] = terrains[s].getSlipProb();
+            tripProb[s] = terrains[s].getTripProb();
+        }
+        this.length = total;
+
+        // the finish line itself belongs to the last segment
+        this.segmentAt = new int[total + 1];
+        int s = 0;
+        for (int d = 0; d <= total; d++) {
+            while (s < n - 1 && d >= segmentEnds[s]) s++;
+            segmentAt[d] = s;
+        }
+    }
+
+    /**
+     * The same terrain from start to finish.
+     */
+    public static Track uniform(int length, Terrain terrain) {
+        return new Track(new int[]{length}, new Terrain[]{terrain});
+    }
+
+    /**
+     * Build a track from a spec. A plain terrain name ("Muddy") covers the
+     * whole track; otherwise "Normal:2,Muddy:1,Icy:1" gives each terrain a
+     * share of the length in proportion to its weight.
+     */
+    public static Track fromSpec(int length, String spec) {
+        if (spec.indexOf(':') < 0) {
+            return uniform(length, Terrain.forName(spec.trim()));
+        }
+        String[] parts = spec.split(",");
+        Terrain[] ts = new Terrain[parts.length];
+        double[] weights = new double[parts.length];
+        double totalWeight = 0;
+        for (int i = 0; i < parts.length; i++) {
+            String[] kv = parts[i].split(":");
+            if (kv.length != 2) throw new IllegalArgumentException("Bad segment " + parts[i]);
+            ts[i] = Terrain.forName(kv[0].trim());
+            weights[i] = Double.parseDouble(kv[1].trim());
+            if (weights[i] < 0) throw new IllegalArgumentException("Bad segment " + parts[i]);
+            totalWeight += weights[i];
+        }
+        if (totalWeight <= 0) throw new IllegalArgumentException("Segments have no length");
+
+        // round the running total so the pieces always add up to length
+        List<Integer> lengths = new ArrayList<>();
+        List<Terrain> kept = new ArrayList<>();
+        double cumulative = 0;
+        int prevEnd = 0;
+        for (int i = 0; i < parts.length; i++) {
+            cumulative += weights[i];
+            int end = (int) Math.round(length * cumulative / totalWeight);
+            if (end > prevEnd) {
+                lengths.add(end - prevEnd);
+                kept.add(ts[i]);
+                prevEnd = end;
+            }
+        }
+        int[] lenArr = new int[lengths.size()];
+        for (int i = 0; i < lenArr.length; i++) lenArr[i] = lengths.get(i);
+        return new Track(lenArr, kept.toArray(new Terrain[0]));
+    }
+
+    public int getLength() {
+        return length;
+    }
+
+    public int getSegments() {
+        return terrains.length;
+    }
+
+    /**
+     * Segment under a horse that has travelled this far.
+     * Anything past the finish counts as the last segment.
+     */
+    public int segmentAt(int distance) {
+        return segmentAt[Math.max(0, Math.min(length, distance))];
+    }
+
+    public Terrain getTerrain(int segment) {
+        return terrains[segment];
+    }
+
+    public int getSegmentStart(int segment) {
+        return segment == 0 ? 0 : segmentEnds[segment - 1];
+    }
+
+    public int getSegmentEnd(int segment) {
+        return segmentEnds[segment];
+    }
+
+    public double getMoveFactor(int segment) {
+        return moveFactor[segment];
+    }
+
+    public double getSlipProb(int segment) {
+        return slipProb[segment];
+    }
+
+    public double getTripProb(int segment) {
+        return tripProb[segment];
+    }
+
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeInt(terrains.length);
+        for (int s = 0; s < terrains.length; s++) {
+            out.writeInt(segmentEnds[s] - getSegmentStart(s));
+            out.writeUTF(terrains[s].getName());
+            out.writeDouble(moveFactor[s]);
+            out.writeDouble(slipProb[s]);
+            out.writeDouble(tripProb[s]);
+        }
+    }
+
+    public static Track readFrom(DataInput in) throws IOException {
+        int n = in.readInt();
+        if (n < 1) throw new IOException("Bad segment count " + n);
+        int[] lengths = new int[n];
+        Terrain[] ts = new Terrain[n];
+        for (int s = 0; s < n; s++) {
+            lengths[s] = in.readInt();
+            ts[s] = new Terrain(in.readUTF(), in.readDouble(), in.readDouble(), in.readDouble());
+        }
+        try {
+            return new Track(lengths, ts);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Bad track: " + e.getMessage());
+        }
+    }
+}